@@ -0,0 +1,185 @@
+package aed.sorting;
+
+import java.util.Arrays;
+
+/** Class SortProfile
+ - What a small sample of the input looks like, used to choose the sorting engine */
+class SortProfile
+{
+    double averageLength;
+    int alphabetSpread;   // maxChar - minChar of the first chars (determineLimits)
+    double averageLcp;    // shared prefix between neighbours of the sorted sample
+    double duplicateRatio;
+}
+
+/** Looks at the input before sorting and picks the engine that fits it best:
+ - tiny inputs: plain comparison sort
+ - (nearly) sorted inputs: Arrays.sort, which is a TimSort and just merges the runs it finds
+ - short strings spread over a wide alphabet, without duplicates or shared prefixes, in inputs of medium size:
+ the MSD buckets of RecursiveStringSort.sort, which split them in one or two levels
+ - everything else: the 3-way multikey quicksort (prefixSort)
+ The multikey quicksort is the default because it was the fastest engine (or close to it) on every dataset of the
+ JMH benchmarks, while the MSD buckets are several times slower with long shared prefixes or duplicates and also
+ fall behind from about a million strings. Only inputs that may go to the MSD buckets are profiled, and the
+ sample is small next to them, so profiling never costs as much as sorting again.
+ All the cutoffs can be changed with the setters: the ones used to choose the engine, and the insertion sort
+ cutoffs of the radix and multikey engines. */
+public class AdaptiveStringSort {
+
+    public enum Engine { COMPARISON, RUN_MERGE, RADIX, MULTIKEY }
+
+    private static final int SAMPLE_SIZE = 1024;
+    // Presortedness is measured in evenly spaced blocks of consecutive strings
+    private static final int RUN_BLOCKS = 32;
+    private static final int RUN_BLOCK_SIZE = 32;
+    private static final int MIN_RUN = 16;
+
+    private int comparisonCutoff = 64;
+    private double presortedRatio = 0.6;
+    private int radixMinSize = 1 << 16;
+    private int radixMaxSize = 1 << 18;
+    private int wideAlphabet = 4096;
+    private double shortLength = 16;
+    private double prefixDepth = 2;
+    private double duplicateRatio = 0.05;
+
+    // Cutoffs of the engines themselves (size under which each one switches to insertion sort)
+    private int radixInsertionCutoff = 50;
+    private int multikeyInsertionCutoff = 16;
+
+    public void sort(String[] a) {
+        switch (choose(a)) {
+            case COMPARISON:
+            case RUN_MERGE:
+                Arrays.sort(a);
+                break;
+            case RADIX:
+                RecursiveStringSort.sort(a, radixInsertionCutoff);
+                break;
+            default:
+                RecursiveStringSort.prefixSort(a, multikeyInsertionCutoff);
+        }
+    }
+
+    public Engine choose(String[] a) {
+        if (a.length < comparisonCutoff) return Engine.COMPARISON;
+        if (sortedRatio(a) >= presortedRatio) return Engine.RUN_MERGE;
+        if (a.length < radixMinSize || a.length >= radixMaxSize) return Engine.MULTIKEY;
+
+        SortProfile profile = profile(a);
+        if (profile.alphabetSpread > wideAlphabet && profile.averageLength <= shortLength
+                && profile.averageLcp < prefixDepth && profile.duplicateRatio < duplicateRatio) {
+            return Engine.RADIX;
+        }
+        return Engine.MULTIKEY;
+    }
+
+    /** Fraction of the strings, in RUN_BLOCKS evenly spaced blocks of consecutive strings, that are inside a run
+     of at least MIN_RUN strings in order (or in strictly reverse order, which TimSort also uses as it is).
+     A few strings out of place only break the runs around them, unlike counting a[i] > a[i+1] in the whole
+     input, and random inputs almost never have runs that long. */
+    static double sortedRatio(String[] a) {
+        int n = a.length;
+        int blocks = Math.min(RUN_BLOCKS, Math.max(1, n / RUN_BLOCK_SIZE));
+        long inRuns = 0;
+        long total = 0;
+        for (int b = 0; b < blocks; b++) {
+            int start = blocks == 1 ? 0 : (int) ((long) b * (n - RUN_BLOCK_SIZE) / (blocks - 1));
+            int end = blocks == 1 ? n : start + RUN_BLOCK_SIZE;
+            int i = start;
+            while (i < end) {
+                int j = i + 1;
+                if (j < end && a[j].compareTo(a[i]) < 0) {
+                    while (j < end && a[j].compareTo(a[j - 1]) < 0) j++;
+                } else {
+                    while (j < end && a[j].compareTo(a[j - 1]) >= 0) j++;
+                }
+                if (j - i >= MIN_RUN) inRuns += j - i;
+                i = j;
+            }
+            total += end - start;
+        }
+        return total == 0 ? 1 : (double) inRuns / total;
+    }
+
+    static SortProfile profile(String[] a) {
+        SortProfile profile = new SortProfile();
+        int n = a.length;
+        int size = Math.min(n, SAMPLE_SIZE);
+        if (size == 0) return profile;
+
+        String[] sample = new String[size];
+        long totalLength = 0;
+        for (int s = 0; s < size; s++) {
+            sample[s] = a[(int) ((long) s * n / size)];
+            totalLength += sample[s].length();
+        }
+        profile.averageLength = (double) totalLength / size;
+
+        profile.alphabetSpread = RecursiveStringSort.alphabetSpread(Arrays.asList(sample), 0);
+
+        int[] lcp = RecursiveStringSort.sortWithLcp(sample);
+        long totalLcp = 0;
+        int duplicates = 0;
+        for (int s = 1; s < size; s++) {
+            totalLcp += lcp[s];
+            if (lcp[s] == sample[s].length() && lcp[s] == sample[s - 1].length()) duplicates++;
+        }
+        profile.averageLcp = size > 1 ? (double) totalLcp / (size - 1) : 0;
+        profile.duplicateRatio = (double) duplicates / size;
+        return profile;
+    }
+
+    public AdaptiveStringSort setComparisonCutoff(int comparisonCutoff) {
+        this.comparisonCutoff = comparisonCutoff;
+        return this;
+    }
+
+    public AdaptiveStringSort setPresortedRatio(double presortedRatio) {
+        this.presortedRatio = presortedRatio;
+        return this;
+    }
+
+    // Inputs outside [radixMinSize, radixMaxSize) always go to the multikey quicksort, without being profiled
+    public AdaptiveStringSort setRadixMinSize(int radixMinSize) {
+        this.radixMinSize = radixMinSize;
+        return this;
+    }
+
+    public AdaptiveStringSort setRadixMaxSize(int radixMaxSize) {
+        this.radixMaxSize = radixMaxSize;
+        return this;
+    }
+
+    public AdaptiveStringSort setWideAlphabet(int wideAlphabet) {
+        this.wideAlphabet = wideAlphabet;
+        return this;
+    }
+
+    public AdaptiveStringSort setShortLength(double shortLength) {
+        this.shortLength = shortLength;
+        return this;
+    }
+
+    public AdaptiveStringSort setPrefixDepth(double prefixDepth) {
+        this.prefixDepth = prefixDepth;
+        return this;
+    }
+
+    public AdaptiveStringSort setDuplicateRatio(double duplicateRatio) {
+        this.duplicateRatio = duplicateRatio;
+        return this;
+    }
+
+    public AdaptiveStringSort setRadixInsertionCutoff(int radixInsertionCutoff) {
+        if (radixInsertionCutoff < 1) throw new IllegalArgumentException();
+        this.radixInsertionCutoff = radixInsertionCutoff;
+        return this;
+    }
+
+    public AdaptiveStringSort setMultikeyInsertionCutoff(int multikeyInsertionCutoff) {
+        if (multikeyInsertionCutoff < 1) throw new IllegalArgumentException();
+        this.multikeyInsertionCutoff = multikeyInsertionCutoff;
+        return this;
+    }
+}
@@ -0,0 +1,239 @@
+package aed.sorting;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/** MSD radix sort that works on a packed arena of strings instead of a String[].
+ Only the offsets and lengths arrays are reordered, the bytes themselves never move.
+
+ The bytes are compared as unsigned values, which gives the right order for both encodings we use:
+ - Latin-1: one byte per char, so it's the same order as String.compareTo
+ - UTF-8: the byte order of UTF-8 is the code point order (it only differs from String.compareTo
+ for chars above the surrogates, 0xE000 - 0xFFFF, compared against supplementary characters)
+
+ For char[] arenas every char is split into two digits (high byte and then low byte), so the buckets
+ are always 256 wide no matter how spread out the alphabet is. */
+public class ArenaStringSort {
+
+    // Same idea as the a.size() < 50 in recursive_sort, small ranges are cheaper with insertion sort
+    private static final int INSERTION_CUTOFF = 32;
+    private static final int RADIX = 256;
+
+    private interface Digits {
+        // Digit (0 - 255) of the string i at the position d, or -1 if the string has already ended
+        int digit(int i, int d);
+
+        // How many digits of v and w are equal starting at the position d
+        int commonPrefix(int v, int w, int d);
+    }
+
+    /** Digits of a byte arena. The common prefixes use Arrays.mismatch (or ByteBuffer.mismatch for direct and
+     mapped buffers), which the JIT turns into vector instructions, so long equal runs are compared many bytes
+     at a time instead of one digit at a time. */
+    private static final class ByteDigits implements Digits {
+        private final ByteBuffer arena;
+        private final byte[] array; // null when the buffer isn't backed by an array
+        private final int base;
+        private final int[] offsets;
+        private final int[] lengths;
+
+        ByteDigits(ByteBuffer arena, int[] offsets, int[] lengths) {
+            this.arena = arena;
+            this.array = arena.hasArray() ? arena.array() : null;
+            this.base = arena.hasArray() ? arena.arrayOffset() : 0;
+            this.offsets = offsets;
+            this.lengths = lengths;
+        }
+
+        @Override
+        public int digit(int i, int d) {
+            if (d >= lengths[i]) return -1;
+            return (array != null ? array[base + offsets[i] + d] : arena.get(offsets[i] + d)) & 0xff;
+        }
+
+        @Override
+        public int commonPrefix(int v, int w, int d) {
+            int lv = lengths[v] - d;
+            int lw = lengths[w] - d;
+            if (lv <= 0 || lw <= 0) return 0;
+            int mismatch;
+            if (array != null) {
+                int fromV = base + offsets[v] + d;
+                int fromW = base + offsets[w] + d;
+                mismatch = Arrays.mismatch(array, fromV, fromV + lv, array, fromW, fromW + lw);
+            } else {
+                mismatch = arena.slice(offsets[v] + d, lv).mismatch(arena.slice(offsets[w] + d, lw));
+            }
+            return mismatch == -1 ? lv : mismatch;
+        }
+    }
+
+    /** Digits of a char arena, every char is two digits (high byte and then low byte) */
+    private static final class CharDigits implements Digits {
+        private final CharBuffer arena;
+        private final char[] array;
+        private final int base;
+        private final int[] offsets;
+        private final int[] lengths;
+
+        CharDigits(CharBuffer arena, int[] offsets, int[] lengths) {
+            this.arena = arena;
+            this.array = arena.hasArray() ? arena.array() : null;
+            this.base = arena.hasArray() ? arena.arrayOffset() : 0;
+            this.offsets = offsets;
+            this.lengths = lengths;
+        }
+
+        private char charAt(int i, int position) {
+            return array != null ? array[base + offsets[i] + position] : arena.get(offsets[i] + position);
+        }
+
+        @Override
+        public int digit(int i, int d) {
+            if ((d >> 1) >= lengths[i]) return -1;
+            char c = charAt(i, d >> 1);
+            return (d & 1) == 0 ? c >>> 8 : c & 0xff;
+        }
+
+        @Override
+        public int commonPrefix(int v, int w, int d) {
+            int prefix = 0;
+            if ((d & 1) == 1) { // starts at the low byte of a char
+                int digit = digit(v, d);
+                if (digit == -1 || digit != digit(w, d)) return 0;
+                prefix = 1;
+                d++;
+            }
+            int position = d >> 1;
+            int lv = lengths[v] - position;
+            int lw = lengths[w] - position;
+            if (lv <= 0 || lw <= 0) return prefix;
+            int mismatch;
+            if (array != null) {
+                int fromV = base + offsets[v] + position;
+                int fromW = base + offsets[w] + position;
+                mismatch = Arrays.mismatch(array, fromV, fromV + lv, array, fromW, fromW + lw);
+            } else {
+                mismatch = arena.slice(offsets[v] + position, lv).mismatch(arena.slice(offsets[w] + position, lw));
+            }
+            if (mismatch == -1) return prefix + 2 * lv;
+            prefix += 2 * mismatch;
+            // The chars that differ may still have the same high byte
+            if (mismatch < lv && mismatch < lw && (charAt(v, position + mismatch) >>> 8) == (charAt(w, position + mismatch) >>> 8)) {
+                prefix++;
+            }
+            return prefix;
+        }
+    }
+
+    public static void sort(StringArena arena) {
+        sort(arena.buffer, arena.offsets, arena.lengths, arena.size);
+    }
+
+    public static void sort(byte[] arena, int[] offsets, int[] lengths) {
+        sort(ByteBuffer.wrap(arena), offsets, lengths, offsets.length);
+    }
+
+    public static void sort(ByteBuffer arena, int[] offsets, int[] lengths, int n) {
+        sortIndexes(new ByteDigits(arena, offsets, lengths), offsets, lengths, n);
+    }
+
+    public static void sort(char[] arena, int[] offsets, int[] lengths) {
+        sort(CharBuffer.wrap(arena), offsets, lengths, offsets.length);
+    }
+
+    public static void sort(CharBuffer arena, int[] offsets, int[] lengths, int n) {
+        sortIndexes(new CharDigits(arena, offsets, lengths), offsets, lengths, n);
+    }
+
+    /** Returns the order of the n strings of the arena (the first one is arena string number result[0]) without
+     changing the offsets and lengths. Strings with the same bytes keep their order. */
+    static int[] argsort(ByteBuffer arena, int[] offsets, int[] lengths, int n) {
+        return argsort(new ByteDigits(arena, offsets, lengths), n);
+    }
+
+    private static int[] argsort(Digits digits, int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        if (n > 1) msd(digits, order, new int[n], new int[n], 0, n - 1, 0);
+        return order;
+    }
+
+    // Sorts the string numbers and then applies that order to the offsets and lengths
+    private static void sortIndexes(Digits digits, int[] offsets, int[] lengths, int n) {
+        if (n <= 1) return;
+        int[] order = argsort(digits, n);
+
+        int[] sortedOffsets = new int[n];
+        int[] sortedLengths = new int[n];
+        for (int i = 0; i < n; i++) {
+            sortedOffsets[i] = offsets[order[i]];
+            sortedLengths[i] = lengths[order[i]];
+        }
+        System.arraycopy(sortedOffsets, 0, offsets, 0, n);
+        System.arraycopy(sortedLengths, 0, lengths, 0, n);
+    }
+
+    // cache keeps the digit of every string between the counting and the distribution, so it's only read once
+    private static void msd(Digits digits, int[] order, int[] aux, int[] cache, int low, int high, int d) {
+        while (true) {
+            if (high - low < INSERTION_CUTOFF) {
+                insertionSort(digits, order, low, high, d);
+                return;
+            }
+
+            // One pass for the histogram and the smallest/biggest digit
+            // count[0] is for the strings that ended, count[1..256] for every possible byte
+            int[] count = new int[RADIX + 2];
+            int minDigit = RADIX;
+            int maxDigit = -1;
+            for (int i = low; i <= high; i++) {
+                int digit = digits.digit(order[i], d);
+                cache[i] = digit;
+                count[digit + 2]++;
+                if (digit < minDigit) minDigit = digit;
+                if (digit > maxDigit) maxDigit = digit;
+            }
+
+            // Every string has the same digit: skip the whole common run at once instead of one level at a time
+            if (minDigit == maxDigit) {
+                if (minDigit == -1) return; // all of them ended, they're equal
+                int prefix = Integer.MAX_VALUE;
+                for (int i = low + 1; i <= high && prefix > 1; i++) {
+                    prefix = Math.min(prefix, digits.commonPrefix(order[low], order[i], d));
+                }
+                d += prefix;
+                continue;
+            }
+
+            for (int r = minDigit + 1; r <= maxDigit + 1; r++) count[r + 1] += count[r];
+            for (int i = low; i <= high; i++) aux[count[cache[i] + 1]++] = order[i];
+            System.arraycopy(aux, 0, order, low, high - low + 1);
+
+            // count[r] is now the end of the bucket r-1, strings that ended (bucket -1) are already in place
+            for (int r = Math.max(minDigit, 0); r <= maxDigit; r++) {
+                int start = low + count[r];
+                int end = low + count[r + 1] - 1;
+                if (end > start) msd(digits, order, aux, cache, start, end, d + 1);
+            }
+            return;
+        }
+    }
+
+    private static void insertionSort(Digits digits, int[] order, int low, int high, int d) {
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && less(digits, order[j], order[j - 1], d); j--) {
+                int tmp = order[j];
+                order[j] = order[j - 1];
+                order[j - 1] = tmp;
+            }
+        }
+    }
+
+    // The first d digits are already known to be equal
+    private static boolean less(Digits digits, int v, int w, int d) {
+        d += digits.commonPrefix(v, w, d);
+        return digits.digit(v, d) < digits.digit(w, d);
+    }
+}
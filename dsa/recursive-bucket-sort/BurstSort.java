@@ -0,0 +1,167 @@
+package aed.sorting;
+
+import java.util.Arrays;
+
+/** Class BurstNode
+ - Inner node of the burst trie, one child per possible byte of the next digit.
+ A child is either another BurstNode or a BurstContainer (leaf) */
+class BurstNode
+{
+    final Object[] children = new Object[BurstSort.RADIX];
+    // Strings that end exactly at this node are all equal, so they don't need to be sorted
+    String[] ends;
+    int endCount;
+
+    void addEnd(String str) {
+        if (ends == null) ends = new String[4];
+        else if (endCount == ends.length) ends = Arrays.copyOf(ends, endCount * 2);
+        ends[endCount++] = str;
+    }
+}
+
+/** Class BurstContainer
+ - Unsorted leaf of the burst trie, all of its strings share the digits of the path up to it */
+class BurstContainer
+{
+    String[] items = new String[16];
+    int size;
+
+    void add(String str) {
+        if (size == items.length) items = Arrays.copyOf(items, size * 2);
+        items[size++] = str;
+    }
+}
+
+/** Burstsort: the strings are inserted into a trie whose leaves are small unsorted containers.
+ When a container gets bigger than the threshold it bursts into a new node, so every container stays small
+ enough to be sorted inside the cache. In the end the trie is traversed in order, sorting every container
+ with RecursiveStringSort.prefixSort (starting from the depth of the container) while writing the output.
+
+ Like the char[] arena sort, every char is split into two digits (high byte, low byte) so the nodes have a fixed
+ size of 256 children, even with unicode strings. */
+public class BurstSort {
+
+    static final int RADIX = 256;
+
+    // Number of strings a container can hold before it bursts (the references fit in a 256KB L2 cache)
+    private static final int DEFAULT_THRESHOLD = 8192;
+
+    public static void sort(String[] a) {
+        sort(a, DEFAULT_THRESHOLD);
+    }
+
+    public static void sort(String[] a, int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException();
+        if (a.length <= 1) return;
+
+        BurstNode root = new BurstNode();
+        for (String str : a) insert(root, str, 0, threshold);
+        traverse(root, a, new long[a.length]);
+    }
+
+    // Digit d of the string: high byte of the char d/2 for even d, low byte for odd d, -1 if the string is over
+    private static int digit(String str, int d) {
+        if ((d >> 1) >= str.length()) return -1;
+        char c = str.charAt(d >> 1);
+        return (d & 1) == 0 ? c >>> 8 : c & 0xff;
+    }
+
+    private static void insert(BurstNode node, String str, int d, int threshold) {
+        while (true) {
+            int digit = digit(str, d);
+            if (digit == -1) {
+                node.addEnd(str);
+                return;
+            }
+
+            Object child = node.children[digit];
+            if (child instanceof BurstNode) {
+                node = (BurstNode) child;
+                d++;
+                continue;
+            }
+
+            BurstContainer container = (BurstContainer) child;
+            if (container == null) {
+                container = new BurstContainer();
+                node.children[digit] = container;
+            }
+            container.add(str);
+            if (container.size > threshold) burst(node, digit, container, d + 1, threshold);
+            return;
+        }
+    }
+
+    /** Replaces the container by a node and spreads its strings by the digit d. The container has threshold + 1
+     strings, so at most one of the new containers can be over the threshold, and only if all the strings went to
+     it: in that case it bursts again in the same loop (no recursion, strings sharing a long prefix would
+     overflow the stack otherwise). */
+    private static void burst(BurstNode parent, int digit, BurstContainer container, int d, int threshold) {
+        while (true) {
+            BurstNode node = new BurstNode();
+            parent.children[digit] = node;
+            BurstContainer full = null;
+            int fullDigit = -1;
+            for (int i = 0; i < container.size; i++) {
+                String str = container.items[i];
+                int next = digit(str, d);
+                if (next == -1) {
+                    node.addEnd(str);
+                    continue;
+                }
+                BurstContainer child = (BurstContainer) node.children[next];
+                if (child == null) {
+                    child = new BurstContainer();
+                    node.children[next] = child;
+                }
+                child.add(str);
+                if (child.size > threshold) {
+                    full = child;
+                    fullDigit = next;
+                }
+            }
+            if (full == null) return;
+            parent = node;
+            digit = fullDigit;
+            container = full;
+            d++;
+        }
+    }
+
+    /** Writes the strings of the trie in order into a. It uses its own stack instead of recursion, since the trie
+     is as deep as the longest shared prefix (two levels per char). The node at the position k of the stack is at
+     the digit k. prefixes is the scratch space of prefixSortRange, shared by all the containers. */
+    private static void traverse(BurstNode root, String[] a, long[] prefixes) {
+        BurstNode[] nodes = new BurstNode[16];
+        int[] next = new int[16]; // next child to visit of every node in the stack
+        nodes[0] = root;
+        int top = 0;
+        int index = 0;
+        for (int i = 0; i < root.endCount; i++) a[index++] = root.ends[i];
+
+        while (top >= 0) {
+            BurstNode node = nodes[top];
+            if (next[top] == RADIX) {
+                top--;
+                continue;
+            }
+            Object child = node.children[next[top]++];
+            if (child instanceof BurstNode) {
+                BurstNode inner = (BurstNode) child;
+                if (++top == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, top * 2);
+                    next = Arrays.copyOf(next, top * 2);
+                }
+                nodes[top] = inner;
+                next[top] = 0;
+                for (int i = 0; i < inner.endCount; i++) a[index++] = inner.ends[i];
+            } else if (child != null) {
+                BurstContainer container = (BurstContainer) child;
+                System.arraycopy(container.items, 0, a, index, container.size);
+                // The chars before (top + 1) / 2 are equal, an odd digit leaves half a char that's sorted again
+                RecursiveStringSort.prefixSortRange(a, prefixes, index, index + container.size - 1, (top + 1) / 2);
+                index += container.size;
+            }
+        }
+    }
+}
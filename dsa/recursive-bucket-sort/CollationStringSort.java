@@ -0,0 +1,47 @@
+package aed.sorting;
+
+import java.nio.ByteBuffer;
+import java.text.Collator;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/** Locale-aware sort: instead of calling Collator.compare in every comparison, the CollationKey of every string is
+ computed once and its bytes are radix sorted with the ArenaStringSort buckets (comparing the key bytes as unsigned
+ values gives the same result as the collator). Strings the collator considers equal keep their order. */
+public class CollationStringSort {
+
+    // Below this size the keys are computed in the calling thread
+    private static final int PARALLEL_CUTOFF = 10_000;
+
+    public static void sort(String[] a, Locale locale) {
+        sort(a, Collator.getInstance(locale));
+    }
+
+    public static void sort(String[] a, Collator collator) {
+        int n = a.length;
+        if (n <= 1) return;
+
+        // A Collator can't be shared between threads, so every thread uses its own copy
+        ThreadLocal<Collator> collators = ThreadLocal.withInitial(() -> (Collator) collator.clone());
+        byte[][] keys = new byte[n][];
+        IntStream indexes = IntStream.range(0, n);
+        if (n >= PARALLEL_CUTOFF) indexes = indexes.parallel();
+        indexes.forEach(i -> keys[i] = collators.get().getCollationKey(a[i]).toByteArray());
+
+        // All the keys packed in one arena
+        int[] offsets = new int[n];
+        int[] lengths = new int[n];
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            offsets[i] = total;
+            lengths[i] = keys[i].length;
+            total += keys[i].length;
+        }
+        byte[] arena = new byte[total];
+        for (int i = 0; i < n; i++) System.arraycopy(keys[i], 0, arena, offsets[i], lengths[i]);
+
+        int[] order = ArenaStringSort.argsort(ByteBuffer.wrap(arena), offsets, lengths, n);
+        String[] copy = a.clone();
+        for (int i = 0; i < n; i++) a[i] = copy[order[i]];
+    }
+}
@@ -0,0 +1,241 @@
+package aed.sorting;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/** Class RunMerger
+ - Loser tree over k sorted runs, every step gives the smallest line of all the runs with log(k) comparisons.
+ Equal lines come out in the order of the runs, so the merge is stable. */
+class RunMerger implements AutoCloseable
+{
+    private final BufferedReader[] readers;
+    private final String[] heads; // current line of every run, null when the run is over
+    private final int[] tree;     // tree[0] is the winner, tree[1..k-1] the loser of every match
+    private final int k;
+
+    RunMerger(List<Path> runs, Charset charset) throws IOException {
+        this.k = runs.size();
+        this.readers = new BufferedReader[k];
+        this.heads = new String[k];
+        this.tree = new int[Math.max(k, 1)];
+
+        try {
+            for (int i = 0; i < k; i++) {
+                readers[i] = Files.newBufferedReader(runs.get(i), charset);
+                heads[i] = readers[i].readLine();
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+
+        // Play the whole tournament once, the leaves are at the positions k..2k-1
+        int[] winners = new int[2 * k];
+        for (int i = 0; i < k; i++) winners[k + i] = i;
+        for (int node = k - 1; node >= 1; node--) {
+            int left = winners[2 * node];
+            int right = winners[2 * node + 1];
+            if (beats(left, right)) { winners[node] = left; tree[node] = right; }
+            else { winners[node] = right; tree[node] = left; }
+        }
+        tree[0] = k > 1 ? winners[1] : 0;
+    }
+
+    boolean hasNext() {
+        return k > 0 && heads[tree[0]] != null;
+    }
+
+    String next() throws IOException {
+        int winner = tree[0];
+        String line = heads[winner];
+        heads[winner] = readers[winner].readLine();
+
+        // Only the matches in the path of the run that moved have to be replayed
+        for (int node = (winner + k) / 2; node >= 1; node /= 2) {
+            if (beats(tree[node], winner)) {
+                int tmp = tree[node];
+                tree[node] = winner;
+                winner = tmp;
+            }
+        }
+        tree[0] = winner;
+        return line;
+    }
+
+    private boolean beats(int a, int b) {
+        if (heads[a] == null) return false;
+        if (heads[b] == null) return true;
+        int cmp = heads[a].compareTo(heads[b]);
+        return cmp < 0 || (cmp == 0 && a < b);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (BufferedReader reader : readers) {
+            if (reader == null) continue;
+            try { reader.close(); } catch (IOException e) { error = e; }
+        }
+        if (error != null) throw error;
+    }
+}
+
+/** External merge sort for files of lines that don't fit in memory.
+ The input is read in chunks of about chunkBytes, every chunk is sorted with RecursiveStringSort.sort
+ (in parallel) and written to a temporary run file. The runs are then merged fanIn at a time with a
+ loser tree until only one merge is left, which writes straight to the output file. */
+public class ExternalStringSort {
+
+    // Rough size of a String in memory: object + array headers and 2 bytes per char
+    private static final int STRING_OVERHEAD = 56;
+
+    private final long chunkBytes;
+    private final int fanIn;
+    private final int threads;
+    private final Path tempDirectory;
+    private final Charset charset;
+
+    public ExternalStringSort(long chunkBytes, int fanIn, int threads, Path tempDirectory) {
+        this(chunkBytes, fanIn, threads, tempDirectory, StandardCharsets.UTF_8);
+    }
+
+    public ExternalStringSort(long chunkBytes, int fanIn, int threads, Path tempDirectory, Charset charset) {
+        if (chunkBytes <= 0 || fanIn < 2 || threads < 1) throw new IllegalArgumentException();
+        this.chunkBytes = chunkBytes;
+        this.fanIn = fanIn;
+        this.threads = threads;
+        this.tempDirectory = tempDirectory;
+        this.charset = charset;
+    }
+
+    public void sort(Path input, Path output) throws IOException {
+        // Every temporary file that may still exist, so nothing is left behind if a merge fails half way
+        Set<Path> temporary = new LinkedHashSet<>();
+        try {
+            List<Path> runs = createRuns(input);
+            temporary.addAll(runs);
+            // Merge in passes until one last merge is enough
+            while (runs.size() > fanIn) {
+                List<Path> merged = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += fanIn) {
+                    List<Path> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+                    Path run = Files.createTempFile(tempDirectory, "run", ".txt");
+                    temporary.add(run);
+                    merged.add(run);
+                    merge(group, run);
+                    for (Path used : group) {
+                        Files.deleteIfExists(used);
+                        temporary.remove(used);
+                    }
+                }
+                runs = merged;
+            }
+            merge(runs, output);
+        } finally {
+            for (Path file : temporary) Files.deleteIfExists(file);
+        }
+    }
+
+    // Sorts every chunk of the input and returns the run files in the order of the input
+    private List<Path> createRuns(Path input) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        // At most one chunk per thread in memory at the same time, plus the one being read
+        ArrayDeque<Future<?>> pending = new ArrayDeque<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(input, charset)) {
+            List<String> chunk = new ArrayList<>();
+            long bytes = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                chunk.add(line);
+                bytes += STRING_OVERHEAD + 2L * line.length();
+                if (bytes >= chunkBytes) {
+                    if (pending.size() == threads) waitFor(pending.poll());
+                    pending.add(submitRun(executor, chunk, runs));
+                    chunk = new ArrayList<>();
+                    bytes = 0;
+                }
+            }
+            if (!chunk.isEmpty()) pending.add(submitRun(executor, chunk, runs));
+            while (!pending.isEmpty()) waitFor(pending.poll());
+        } catch (IOException | RuntimeException e) {
+            // The tasks still running would create their run files again after they are deleted
+            stop(executor);
+            for (Path run : runs) Files.deleteIfExists(run);
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+        return runs;
+    }
+
+    private static void stop(ExecutorService executor) {
+        executor.shutdownNow();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private Future<?> submitRun(ExecutorService executor, List<String> chunk, List<Path> runs) throws IOException {
+        Path run = Files.createTempFile(tempDirectory, "run", ".txt");
+        runs.add(run);
+        String[] lines = chunk.toArray(new String[0]);
+        return executor.submit(() -> {
+            RecursiveStringSort.sort(lines);
+            try (BufferedWriter writer = Files.newBufferedWriter(run, charset)) {
+                for (String str : lines) {
+                    writer.write(str);
+                    writer.newLine();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void waitFor(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void merge(List<Path> runs, Path output) throws IOException {
+        try (RunMerger merger = new RunMerger(runs, charset);
+             BufferedWriter writer = Files.newBufferedWriter(output, charset)) {
+            while (merger.hasNext()) {
+                writer.write(merger.next());
+                writer.newLine();
+            }
+        }
+    }
+}
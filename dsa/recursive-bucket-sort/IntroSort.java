@@ -0,0 +1,273 @@
+package aed.sorting;
+
+/** Introsort for primitive arrays, so numbers can be sorted without boxing them into the generic quicksort.
+ - dual pivot partition (pivots taken from the thirds of the range)
+ - heapsort when the recursion gets deeper than 2 * log2(n), so there's no O(n^2) or stack overflow on bad inputs
+ - insertion sort for small ranges
+ Every type also has a key/payload version that moves an int[] (ids, indexes...) together with the keys.
+ Like the quicksort, it is not stable. */
+public class IntroSort extends Sort {
+
+    private static final int INSERTION_CUTOFF = 24;
+
+    private static int depthLimit(int n) {
+        return 2 * (32 - Integer.numberOfLeadingZeros(Math.max(n, 1)));
+    }
+
+    public static void sort(int[] a) {
+        sort(a, null);
+    }
+
+    // Sorts the keys and applies the same moves to payload (payload[i] goes along with keys[i]), payload can be null
+    public static void sort(int[] keys, int[] payload) {
+        if (payload != null && payload.length != keys.length) throw new IllegalArgumentException();
+        introsort(keys, payload, 0, keys.length - 1, depthLimit(keys.length));
+    }
+
+    private static void introsort(int[] a, int[] p, int low, int high, int depth) {
+        if (high - low < INSERTION_CUTOFF) {
+            insertionSort(a, p, low, high);
+            return;
+        }
+        if (depth == 0) {
+            heapsort(a, p, low, high);
+            return;
+        }
+
+        // Two pivots from the thirds of the range: a[low..lt-1] < p1 <= a[lt+1..gt-1] <= p2 < a[gt+1..high]
+        int third = (high - low) / 3;
+        exchange(a, p, low, low + third);
+        exchange(a, p, high, high - third);
+        if (a[low] > a[high]) exchange(a, p, low, high);
+        int pivot1 = a[low];
+        int pivot2 = a[high];
+
+        int lt = low + 1, gt = high - 1, i = low + 1;
+        while (i <= gt) {
+            if (a[i] < pivot1) exchange(a, p, i++, lt++);
+            else if (a[i] > pivot2) exchange(a, p, i, gt--);
+            else i++;
+        }
+        exchange(a, p, low, --lt);
+        exchange(a, p, high, ++gt);
+
+        introsort(a, p, low, lt - 1, depth - 1);
+        if (pivot1 < pivot2) introsort(a, p, lt + 1, gt - 1, depth - 1); // if they're equal the middle is all equal
+        introsort(a, p, gt + 1, high, depth - 1);
+    }
+
+    private static void insertionSort(int[] a, int[] p, int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && a[j] < a[j - 1]; j--) exchange(a, p, j, j - 1);
+        }
+    }
+
+    private static void heapsort(int[] a, int[] p, int low, int high) {
+        int n = high - low + 1;
+        for (int k = n / 2 - 1; k >= 0; k--) sink(a, p, low, k, n);
+        while (n > 1) {
+            exchange(a, p, low, low + --n);
+            sink(a, p, low, 0, n);
+        }
+    }
+
+    // Heap of size n stored in a[low..low+n-1], the children of k are 2k+1 and 2k+2
+    private static void sink(int[] a, int[] p, int low, int k, int n) {
+        while (2 * k + 1 < n) {
+            int child = 2 * k + 1;
+            if (child + 1 < n && a[low + child] < a[low + child + 1]) child++;
+            if (!(a[low + k] < a[low + child])) break;
+            exchange(a, p, low + k, low + child);
+            k = child;
+        }
+    }
+
+    private static void exchange(int[] a, int[] p, int i, int j) {
+        int tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+        if (p != null) {
+            int payload = p[i];
+            p[i] = p[j];
+            p[j] = payload;
+        }
+    }
+
+    public static void sort(long[] a) {
+        sort(a, null);
+    }
+
+    // Sorts the keys and applies the same moves to payload (payload[i] goes along with keys[i]), payload can be null
+    public static void sort(long[] keys, int[] payload) {
+        if (payload != null && payload.length != keys.length) throw new IllegalArgumentException();
+        introsort(keys, payload, 0, keys.length - 1, depthLimit(keys.length));
+    }
+
+    private static void introsort(long[] a, int[] p, int low, int high, int depth) {
+        if (high - low < INSERTION_CUTOFF) {
+            insertionSort(a, p, low, high);
+            return;
+        }
+        if (depth == 0) {
+            heapsort(a, p, low, high);
+            return;
+        }
+
+        // Two pivots from the thirds of the range: a[low..lt-1] < p1 <= a[lt+1..gt-1] <= p2 < a[gt+1..high]
+        int third = (high - low) / 3;
+        exchange(a, p, low, low + third);
+        exchange(a, p, high, high - third);
+        if (a[low] > a[high]) exchange(a, p, low, high);
+        long pivot1 = a[low];
+        long pivot2 = a[high];
+
+        int lt = low + 1, gt = high - 1, i = low + 1;
+        while (i <= gt) {
+            if (a[i] < pivot1) exchange(a, p, i++, lt++);
+            else if (a[i] > pivot2) exchange(a, p, i, gt--);
+            else i++;
+        }
+        exchange(a, p, low, --lt);
+        exchange(a, p, high, ++gt);
+
+        introsort(a, p, low, lt - 1, depth - 1);
+        if (pivot1 < pivot2) introsort(a, p, lt + 1, gt - 1, depth - 1); // if they're equal the middle is all equal
+        introsort(a, p, gt + 1, high, depth - 1);
+    }
+
+    private static void insertionSort(long[] a, int[] p, int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && a[j] < a[j - 1]; j--) exchange(a, p, j, j - 1);
+        }
+    }
+
+    private static void heapsort(long[] a, int[] p, int low, int high) {
+        int n = high - low + 1;
+        for (int k = n / 2 - 1; k >= 0; k--) sink(a, p, low, k, n);
+        while (n > 1) {
+            exchange(a, p, low, low + --n);
+            sink(a, p, low, 0, n);
+        }
+    }
+
+    // Heap of size n stored in a[low..low+n-1], the children of k are 2k+1 and 2k+2
+    private static void sink(long[] a, int[] p, int low, int k, int n) {
+        while (2 * k + 1 < n) {
+            int child = 2 * k + 1;
+            if (child + 1 < n && a[low + child] < a[low + child + 1]) child++;
+            if (!(a[low + k] < a[low + child])) break;
+            exchange(a, p, low + k, low + child);
+            k = child;
+        }
+    }
+
+    private static void exchange(long[] a, int[] p, int i, int j) {
+        long tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+        if (p != null) {
+            int payload = p[i];
+            p[i] = p[j];
+            p[j] = payload;
+        }
+    }
+
+    public static void sort(double[] a) {
+        sort(a, null);
+    }
+
+    // Sorts the keys and applies the same moves to payload (payload[i] goes along with keys[i]), payload can be null
+    public static void sort(double[] keys, int[] payload) {
+        if (payload != null && payload.length != keys.length) throw new IllegalArgumentException();
+
+        // NaN doesn't compare with anything, so they're moved to the end first (like Arrays.sort does)
+        int end = keys.length;
+        for (int i = end - 1; i >= 0; i--) {
+            if (Double.isNaN(keys[i])) exchange(keys, payload, i, --end);
+        }
+        introsort(keys, payload, 0, end - 1, depthLimit(end));
+        fixZeros(keys, payload, end);
+    }
+
+    private static void introsort(double[] a, int[] p, int low, int high, int depth) {
+        if (high - low < INSERTION_CUTOFF) {
+            insertionSort(a, p, low, high);
+            return;
+        }
+        if (depth == 0) {
+            heapsort(a, p, low, high);
+            return;
+        }
+
+        // Two pivots from the thirds of the range: a[low..lt-1] < p1 <= a[lt+1..gt-1] <= p2 < a[gt+1..high]
+        int third = (high - low) / 3;
+        exchange(a, p, low, low + third);
+        exchange(a, p, high, high - third);
+        if (a[low] > a[high]) exchange(a, p, low, high);
+        double pivot1 = a[low];
+        double pivot2 = a[high];
+
+        int lt = low + 1, gt = high - 1, i = low + 1;
+        while (i <= gt) {
+            if (a[i] < pivot1) exchange(a, p, i++, lt++);
+            else if (a[i] > pivot2) exchange(a, p, i, gt--);
+            else i++;
+        }
+        exchange(a, p, low, --lt);
+        exchange(a, p, high, ++gt);
+
+        introsort(a, p, low, lt - 1, depth - 1);
+        if (pivot1 < pivot2) introsort(a, p, lt + 1, gt - 1, depth - 1); // if they're equal the middle is all equal
+        introsort(a, p, gt + 1, high, depth - 1);
+    }
+
+    // -0.0 == 0.0 for the < used in the sort, but -0.0 has to go first
+    private static void fixZeros(double[] a, int[] p, int end) {
+        int negative = -1;
+        for (int i = 0; i < end; i++) {
+            if (a[i] != 0.0) {
+                if (negative != -1) break;
+                continue;
+            }
+            if (negative == -1) negative = i;
+            if (Double.doubleToRawLongBits(a[i]) < 0) exchange(a, p, i, negative++);
+        }
+    }
+
+    private static void insertionSort(double[] a, int[] p, int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && a[j] < a[j - 1]; j--) exchange(a, p, j, j - 1);
+        }
+    }
+
+    private static void heapsort(double[] a, int[] p, int low, int high) {
+        int n = high - low + 1;
+        for (int k = n / 2 - 1; k >= 0; k--) sink(a, p, low, k, n);
+        while (n > 1) {
+            exchange(a, p, low, low + --n);
+            sink(a, p, low, 0, n);
+        }
+    }
+
+    // Heap of size n stored in a[low..low+n-1], the children of k are 2k+1 and 2k+2
+    private static void sink(double[] a, int[] p, int low, int k, int n) {
+        while (2 * k + 1 < n) {
+            int child = 2 * k + 1;
+            if (child + 1 < n && a[low + child] < a[low + child + 1]) child++;
+            if (!(a[low + k] < a[low + child])) break;
+            exchange(a, p, low + k, low + child);
+            k = child;
+        }
+    }
+
+    private static void exchange(double[] a, int[] p, int i, int j) {
+        double tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+        if (p != null) {
+            int payload = p[i];
+            p[i] = p[j];
+            p[j] = payload;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package aed.sorting;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** Class RecursiveSortEvent
+ - JFR event with the summary of one RecursiveStringSort.sort. Disabled by default, even when a recording is
+ running: it has to be enabled in the recording settings (aed.sorting.RecursiveSort#enabled=true), since
+ collecting the stats makes every sort slower */
+@Name("aed.sorting.RecursiveSort")
+@Label("Recursive String Sort")
+@Category("Sorting")
+@Description("Phases of one RecursiveStringSort.sort")
+@Enabled(false)
+class RecursiveSortEvent extends Event {
+    @Label("Strings")
+    int size;
+
+    @Label("Max Depth")
+    int maxDepth;
+
+    @Label("Insertion Sort Strings")
+    long insertionStrings;
+
+    @Label("Buckets Allocated")
+    long bucketsAllocated;
+
+    @Label("Buckets Used")
+    long bucketsUsed;
+
+    @Label("Limits Time") @Timespan(Timespan.NANOSECONDS)
+    long limitsNanos;
+
+    @Label("Distribution Time") @Timespan(Timespan.NANOSECONDS)
+    long distributionNanos;
+
+    @Label("Insertion Sort Time") @Timespan(Timespan.NANOSECONDS)
+    long insertionNanos;
+
+    @Label("Copy Back Time") @Timespan(Timespan.NANOSECONDS)
+    long copyBackNanos;
+
+    @Label("Allocated") @DataAmount
+    long allocatedBytes;
+}
@@ -2,12 +2,14 @@ package aed.sorting;
 
 import aed.utils.TimeAnalysisUtils;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.Collections;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 class Limits
 {
@@ -20,11 +22,49 @@ public class RecursiveStringSort extends Sort {
 
     private static final Random R = new Random();
 
+    // Below this size the recursive sorts use insertion sort instead of buckets
+    private static final int INSERTION_CUTOFF = 50;
+
+    // Biggest char range that still uses one bucket per possible char, above this only the chars present get a bucket
+    private static final int DENSE_BUCKET_LIMIT = 256;
+
+    // prefixSort: chars cached per string (4 * 16 bits = one long) and size under which insertion sort is used
+    private static final int PREFIX_CHARS = 4;
+    private static final int PREFIX_INSERTION_CUTOFF = 16;
+
+    // sortWithCounts: size under which insertion sort is used before collapsing the equal strings
+    private static final int DISTINCT_INSERTION_CUTOFF = 16;
+
     public static <T extends Comparable<T>> void quicksort(T[] a)
     {
         qsort(a, 0, a.length-1);
     }
 
+    // Primitive versions, they use IntroSort so the numbers aren't boxed and bad inputs can't make it O(n^2)
+    public static void quicksort(int[] a) {
+        IntroSort.sort(a);
+    }
+
+    public static void quicksort(long[] a) {
+        IntroSort.sort(a);
+    }
+
+    public static void quicksort(double[] a) {
+        IntroSort.sort(a);
+    }
+
+    public static void quicksort(int[] keys, int[] payload) {
+        IntroSort.sort(keys, payload);
+    }
+
+    public static void quicksort(long[] keys, int[] payload) {
+        IntroSort.sort(keys, payload);
+    }
+
+    public static void quicksort(double[] keys, int[] payload) {
+        IntroSort.sort(keys, payload);
+    }
+
     private static <T extends Comparable<T>> void qsort(T[] a, int low, int high)
     {
         if (high <= low) return;
@@ -92,29 +132,111 @@ public class RecursiveStringSort extends Sort {
         return characterIndex < str.length();
     }
 
+    // maxChar - minChar of determineLimits, for the classes that can't see Limits
+    static int alphabetSpread(List<String> a, int characterIndex) {
+        Limits limits = determineLimits(a, characterIndex);
+        return limits.maxChar - limits.minChar;
+    }
+
+    // Sorted list of the different chars found in a certain position of the strings (strings that are too short are ignored)
+    static char[] distinctChars(List<String> a, int characterIndex) {
+        char[] chars = new char[a.size()];
+        int n = 0;
+        for (String str : a) {
+            if (charIndexIsValid(characterIndex, str)) chars[n++] = str.charAt(characterIndex);
+        }
+        Arrays.sort(chars, 0, n);
+
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || chars[distinct - 1] != chars[i]) chars[distinct++] = chars[i];
+        }
+        return Arrays.copyOf(chars, distinct);
+    }
+
     public static void sort(String[] a) {
-        recursive_sort(Arrays.asList(a), 0);
+        sort(a, INSERTION_CUTOFF);
+    }
+
+    // insertionCutoff: buckets with less strings than this are sorted with insertion sort (50 by default)
+    public static void sort(String[] a, int insertionCutoff) {
+        if (insertionCutoff < 1) throw new IllegalArgumentException();
+        // The stats are only collected when a JFR recording wants the event
+        RecursiveSortEvent event = new RecursiveSortEvent();
+        if (!event.isEnabled()) {
+            recursive_sort(Arrays.asList(a), 0, null, insertionCutoff);
+            return;
+        }
+        sortWithStats(a, event, insertionCutoff);
+    }
+
+    // Same as sort, but also measures every phase of the recursive_sort (see SortStats)
+    public static SortStats sortWithStats(String[] a) {
+        return sortWithStats(a, INSERTION_CUTOFF);
+    }
+
+    public static SortStats sortWithStats(String[] a, int insertionCutoff) {
+        if (insertionCutoff < 1) throw new IllegalArgumentException();
+        return sortWithStats(a, new RecursiveSortEvent(), insertionCutoff);
+    }
+
+    private static SortStats sortWithStats(String[] a, RecursiveSortEvent event, int insertionCutoff) {
+        SortStats stats = new SortStats();
+        event.begin();
+        recursive_sort(Arrays.asList(a), 0, stats, insertionCutoff);
+        event.end();
+        if (event.shouldCommit()) {
+            stats.fill(event, a.length);
+            event.commit();
+        }
+        return stats;
     }
 
-    // Método de Ordenação principal
     public static void recursive_sort(List<String> a, int characterIndex) {
+        recursive_sort(a, characterIndex, null, INSERTION_CUTOFF);
+    }
+
+    // Método de Ordenação principal (stats is null when nothing is being measured)
+    private static void recursive_sort(List<String> a, int characterIndex, SortStats stats, int insertionCutoff) {
+        if (stats != null) stats.enter(characterIndex);
+
         // Call insertion sort if the sample size is not big enough to pay the memory used in the recursive sort
-        if (a.size() < 50) {
+        if (a.size() < insertionCutoff) {
+            if (stats != null) stats.begin();
             insertionSort(a);
+            if (stats != null) {
+                stats.end(SortStats.Phase.INSERTION);
+                stats.insertion(a.size());
+            }
             return;
         }
 
+        if (stats != null) stats.begin();
         Limits limits = determineLimits(a, characterIndex); // min char: 0  - max char: a (1)
 
+        // When the chars are too spread out (ex: ascii mixed with japanese) a dense array would have thousands
+        // of empty buckets, so we only create buckets for the chars that actually show up in this position
+        char[] directory = null;
+        int bucketCount = limits.maxChar - limits.minChar + 1;
+        if (bucketCount > DENSE_BUCKET_LIMIT && bucketCount > a.size()) {
+            directory = distinctChars(a, characterIndex);
+            bucketCount = directory.length;
+        }
+        if (stats != null) {
+            stats.end(SortStats.Phase.LIMITS);
+            stats.begin();
+        }
+
         // Create array of buckets (arrays)
         @SuppressWarnings("unchecked")
-        ArrayList<String>[] buckets = new ArrayList[limits.maxChar - limits.minChar + 1];
+        ArrayList<String>[] buckets = new ArrayList[bucketCount];
         ArrayList<String> zeroBucket = new ArrayList<>();
 
         // Will create different buckets for every different firstChar
         for (String str : a) {
             if (characterIndex < str.length()) { //aa
-                int firstChar = str.charAt(characterIndex) - limits.minChar;
+                char c = str.charAt(characterIndex);
+                int firstChar = directory == null ? c - limits.minChar : Arrays.binarySearch(directory, c);
                 if (buckets[firstChar] == null) {
                     buckets[firstChar] = new ArrayList<>();
                 }
@@ -123,15 +245,22 @@ public class RecursiveStringSort extends Sort {
                 zeroBucket.add(str);
             }
         }
+        if (stats != null) {
+            stats.end(SortStats.Phase.DISTRIBUTION);
+            int used = zeroBucket.isEmpty() ? 0 : 1;
+            for (ArrayList<String> bucket : buckets) if (bucket != null) used++;
+            stats.buckets(characterIndex, buckets.length + 1, used);
+        }
 
         // Order each bucket
         for (int i = 0; i < buckets.length; i++) {
             if (buckets[i] != null) { // buckets[0] ? "aa,a!"
-                recursive_sort(buckets[i], characterIndex + 1);
+                recursive_sort(buckets[i], characterIndex + 1, stats, insertionCutoff);
             }
         }
 
         // Reinsert sorted original list
+        if (stats != null) stats.begin();
         int index = 0;
         for (String str : zeroBucket) {
             a.set(index++, str);
@@ -143,6 +272,243 @@ public class RecursiveStringSort extends Sort {
                 }
             }
         }
+        if (stats != null) stats.end(SortStats.Phase.COPY_BACK);
+    }
+
+    /** Sorts the items by a string key. The keys are extracted only once and the sort is stable, so items
+     with the same key keep their order (sorting by a secondary key first and then by the main key works). */
+    public static <T> void sort(T[] items, Function<T, String> keyExtractor) {
+        int[] order = argsort(items, keyExtractor);
+        T[] copy = items.clone();
+        for (int i = 0; i < order.length; i++) items[i] = copy[order[i]];
+    }
+
+    public static <T> int[] argsort(T[] items, Function<T, String> keyExtractor) {
+        String[] keys = new String[items.length];
+        for (int i = 0; i < items.length; i++) keys[i] = keyExtractor.apply(items[i]);
+        return argsort(keys);
+    }
+
+    /** Returns the permutation that sorts the keys (keys[result[0]] is the smallest), without moving the keys.
+     Stable: equal keys keep their original order. */
+    public static int[] argsort(String[] keys) {
+        int[] order = new int[keys.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        argsort(keys, order, new int[order.length], 0, order.length - 1, 0);
+        return order;
+    }
+
+    // Same buckets as the recursive_sort, but it moves indexes with a counting sort (which keeps the order)
+    private static void argsort(String[] keys, int[] order, int[] aux, int low, int high, int characterIndex) {
+        if (high - low + 1 < INSERTION_CUTOFF) {
+            for (int i = low + 1; i <= high; i++) {
+                for (int j = i; j > low && keys[order[j - 1]].compareTo(keys[order[j]]) > 0; j--) {
+                    int tmp = order[j];
+                    order[j] = order[j - 1];
+                    order[j - 1] = tmp;
+                }
+            }
+            return;
+        }
+
+        List<String> range = new AbstractList<String>() {
+            @Override
+            public String get(int i) { return keys[order[low + i]]; }
+
+            @Override
+            public int size() { return high - low + 1; }
+        };
+        Limits limits = determineLimits(range, characterIndex);
+        char[] directory = null;
+        int bucketCount = limits.maxChar - limits.minChar + 1;
+        if (bucketCount > DENSE_BUCKET_LIMIT && bucketCount > range.size()) {
+            directory = distinctChars(range, characterIndex);
+            bucketCount = directory.length;
+        }
+
+        // bucket[i] is -1 for the keys that are over (zero bucket), count[0] is for those
+        int[] bucket = new int[high - low + 1];
+        int[] count = new int[bucketCount + 2];
+        for (int i = low; i <= high; i++) {
+            bucket[i - low] = bucketOf(keys[order[i]], characterIndex, limits, directory);
+            count[bucket[i - low] + 2]++;
+        }
+        for (int r = 0; r < bucketCount + 1; r++) count[r + 1] += count[r];
+        for (int i = low; i <= high; i++) aux[count[bucket[i - low] + 1]++] = order[i];
+        System.arraycopy(aux, 0, order, low, high - low + 1);
+
+        for (int r = 0; r < bucketCount; r++) {
+            int start = low + count[r];
+            int end = low + count[r + 1] - 1;
+            if (end > start) argsort(keys, order, aux, start, end, characterIndex + 1);
+        }
+    }
+
+    /** Sorts the array and returns its LCP array: lcp[i] is the length of the longest common prefix of a[i-1] and a[i]
+     (lcp[0] is 0). The buckets already know how many chars their strings share, so the LCP between two buckets is
+     just the depth, and the insertion sort only compares chars after that depth. */
+    public static int[] sortWithLcp(String[] a) {
+        int[] lcp = new int[a.length];
+        lcpSort(a, new String[a.length], lcp, 0, a.length - 1, 0);
+        return lcp;
+    }
+
+    // Sorts a[low..high] (equal in the first depth chars) and fills lcp[low+1..high], lcp[low] is up to the caller
+    private static void lcpSort(String[] a, String[] aux, int[] lcp, int low, int high, int depth) {
+        if (high - low + 1 < INSERTION_CUTOFF) {
+            lcpInsertionSort(a, lcp, low, high, depth);
+            return;
+        }
+
+        int[] count = distribute(a, aux, low, high, depth);
+        int bucketCount = count.length - 2;
+
+        // The strings of the zero bucket are all the same string
+        for (int i = low + 1; i < low + count[0]; i++) lcp[i] = depth;
+
+        for (int r = 0; r < bucketCount; r++) {
+            int start = low + count[r];
+            int end = low + count[r + 1] - 1;
+            if (end < start) continue;
+            if (start > low) lcp[start] = depth; // different char (or end) in the position depth
+            if (end > start) lcpSort(a, aux, lcp, start, end, depth + 1);
+        }
+    }
+
+    /** Moves a[low..high] to its buckets by the char at depth, like the recursive_sort (zero bucket first) and
+     returns where they are: the zero bucket is a[low..low+count[0]-1] and the bucket r is
+     a[low+count[r]..low+count[r+1]-1], for r up to count.length - 3 */
+    private static int[] distribute(String[] a, String[] aux, int low, int high, int depth) {
+        List<String> range = Arrays.asList(a).subList(low, high + 1);
+        Limits limits = determineLimits(range, depth);
+        char[] directory = null;
+        int bucketCount = limits.maxChar - limits.minChar + 1;
+        if (bucketCount > DENSE_BUCKET_LIMIT && bucketCount > range.size()) {
+            directory = distinctChars(range, depth);
+            bucketCount = directory.length;
+        }
+
+        int[] count = new int[bucketCount + 2];
+        for (int i = low; i <= high; i++) count[bucketOf(a[i], depth, limits, directory) + 2]++;
+        for (int r = 0; r < bucketCount + 1; r++) count[r + 1] += count[r];
+        for (int i = low; i <= high; i++) aux[count[bucketOf(a[i], depth, limits, directory) + 1]++] = a[i];
+        System.arraycopy(aux, 0, a, low, high - low + 1);
+        return count;
+    }
+
+    private static int bucketOf(String str, int characterIndex, Limits limits, char[] directory) {
+        if (!charIndexIsValid(characterIndex, str)) return -1;
+        char c = str.charAt(characterIndex);
+        return directory == null ? c - limits.minChar : Arrays.binarySearch(directory, c);
+    }
+
+    private static void lcpInsertionSort(String[] a, int[] lcp, int low, int high, int depth) {
+        insertionSort(a, low, high, depth);
+        for (int i = low + 1; i <= high; i++) {
+            int l = depth;
+            int max = Math.min(a[i - 1].length(), a[i].length());
+            while (l < max && a[i - 1].charAt(l) == a[i].charAt(l)) l++;
+            lcp[i] = l;
+        }
+    }
+
+    // Insertion sort of a[low..high] when the first depth chars are already known to be equal
+    private static void insertionSort(String[] a, int low, int high, int depth) {
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compareFrom(a[j - 1], a[j], depth) > 0; j--) exchange(a, j, j - 1);
+        }
+    }
+
+    // compareTo that skips the first depth chars (already known to be equal)
+    private static int compareFrom(String s, String t, int depth) {
+        int max = Math.min(s.length(), t.length());
+        for (int i = depth; i < max; i++) {
+            char cs = s.charAt(i);
+            char ct = t.charAt(i);
+            if (cs != ct) return cs - ct;
+        }
+        return s.length() - t.length();
+    }
+
+    /** Sorts the array and collapses the equal strings: the result has every distinct string once, in order, with
+     how many times it appeared, and a ends up sorted like with sort. Uses a 3-way radix quicksort, so a group of
+     equal strings is collapsed as soon as all of them end in the same position, without comparing the duplicates
+     with each other. */
+    public static StringCounts sortWithCounts(String[] a) {
+        StringCounts result = new StringCounts();
+        distinctSort(a, result, 0, a.length - 1, 0);
+        return result;
+    }
+
+    // Sorts a (like sortWithCounts) and returns only its distinct strings
+    public static String[] sortDistinct(String[] a) {
+        return sortWithCounts(a).getStrings();
+    }
+
+    // Sorts a[low..high] and adds its distinct strings, in order, to the result
+    private static void distinctSort(String[] a, StringCounts result, int low, int high, int depth) {
+        if (high < low) return;
+        if (high - low + 1 < DISTINCT_INSERTION_CUTOFF) {
+            insertionSort(a, low, high, depth);
+            int start = low;
+            for (int i = low + 1; i <= high + 1; i++) {
+                if (i <= high && compareFrom(a[start], a[i], depth) == 0) continue;
+                result.add(a[start], i - start);
+                start = i;
+            }
+            return;
+        }
+
+        // 3-way partition by the char at depth (-1 if the string is over): a[low..lt-1] < v = a[lt..gt] < a[gt+1..high]
+        exchange(a, low, low + R.nextInt(high + 1 - low));
+        int v = charAtOrEnd(a[low], depth);
+        int lt = low, gt = high, i = low + 1;
+        while (i <= gt) {
+            int c = charAtOrEnd(a[i], depth);
+            if (c < v) exchange(a, lt++, i++);
+            else if (c > v) exchange(a, i, gt--);
+            else i++;
+        }
+
+        distinctSort(a, result, low, lt - 1, depth);
+        if (v == -1) result.add(a[lt], gt - lt + 1); // every string of the middle part ends here, they're all the same
+        else distinctSort(a, result, lt, gt, depth + 1);
+        distinctSort(a, result, gt + 1, high, depth);
+    }
+
+    private static int charAtOrEnd(String str, int characterIndex) {
+        return charIndexIsValid(characterIndex, str) ? str.charAt(characterIndex) : -1;
+    }
+
+    /** Only the k smallest strings end up sorted, in a[0..k-1], the rest of the array is left in any order */
+    public static void sortTopK(String[] a, int k) {
+        sortRange(a, 0, Math.min(k, a.length));
+    }
+
+    /** Puts in a[from..to-1] (sorted) the strings that would be there if the whole array was sorted. The strings
+     before from are all smaller and the ones after are all bigger, but they're not sorted: the bucket pass only
+     goes into the buckets that have some position of the window. With an empty window (from == to) it still splits
+     the array at from, so sortRange(a, k, k) leaves the k smallest strings (unsorted) in a[0..k-1]. */
+    public static void sortRange(String[] a, int from, int to) {
+        if (from < 0 || to > a.length || from > to) throw new IllegalArgumentException();
+        if (from == a.length || to == 0) return; // the split is at one of the ends, nothing to move
+        // An empty window goes down to the position from (that one string also ends up in place)
+        rangeSort(a, new String[a.length], 0, a.length - 1, 0, from, Math.max(from, to - 1));
+    }
+
+    private static void rangeSort(String[] a, String[] aux, int low, int high, int depth, int from, int to) {
+        if (high - low + 1 < INSERTION_CUTOFF) {
+            insertionSort(a, low, high, depth);
+            return;
+        }
+
+        int[] count = distribute(a, aux, low, high, depth);
+        for (int r = 0; r < count.length - 2; r++) {
+            int start = low + count[r];
+            int end = low + count[r + 1] - 1;
+            if (start > to) break;
+            if (end > start && end >= from) rangeSort(a, aux, start, end, depth + 1, from, to);
+        }
     }
 
     /** It's very hard to create a sorting algorithm faster than the recursive_sort without compromising
@@ -179,6 +545,104 @@ public class RecursiveStringSort extends Sort {
         }
     }
 
+    /** Multikey quicksort that keeps the next 4 chars of every string (from the current depth) packed in a long[].
+     Partitions and the insertion sort compare those longs, the strings are only read again to pack the next 4 chars
+     of a group with the same prefix, or on a tie inside the insertion sort. Chars are packed 16 bits each, so
+     "ab" and "ab\0" get the same prefix, that's resolved by putting the shorter strings first (they're prefixes
+     of the longer ones).
+     */
+    public static void prefixSort(String[] a) {
+        prefixSort(a, PREFIX_INSERTION_CUTOFF);
+    }
+
+    // insertionCutoff: ranges with less strings than this are sorted with insertion sort (16 by default)
+    public static void prefixSort(String[] a, int insertionCutoff) {
+        if (insertionCutoff < 1) throw new IllegalArgumentException();
+        long[] prefixes = new long[a.length];
+        packPrefixes(a, prefixes, 0, a.length - 1, 0);
+        prefixSort(a, prefixes, 0, a.length - 1, 0, insertionCutoff);
+    }
+
+    /** Sorts a[low..high] when the first depth chars of all these strings are already known to be equal.
+     prefixes is only scratch space (indexed like a, so at least high + 1 long), callers that sort many ranges
+     of the same array should allocate it once and reuse it. */
+    static void prefixSortRange(String[] a, long[] prefixes, int low, int high, int depth) {
+        packPrefixes(a, prefixes, low, high, depth);
+        prefixSort(a, prefixes, low, high, depth, PREFIX_INSERTION_CUTOFF);
+    }
+
+    private static void prefixSort(String[] a, long[] prefixes, int low, int high, int depth, int insertionCutoff) {
+        if (high - low < insertionCutoff) {
+            prefixInsertionSort(a, prefixes, low, high);
+            return;
+        }
+
+        // 3-way partition by the cached prefix: a[low..lt-1] < v = a[lt..gt] < a[gt+1..high]
+        exchange(a, prefixes, low, low + R.nextInt(high + 1 - low));
+        long v = prefixes[low];
+        int lt = low, gt = high, i = low + 1;
+        while (i <= gt) {
+            int cmp = Long.compareUnsigned(prefixes[i], v);
+            if (cmp < 0) exchange(a, prefixes, lt++, i++);
+            else if (cmp > 0) exchange(a, prefixes, i, gt--);
+            else i++;
+        }
+
+        // The prefixes of the smaller and bigger parts are still for this depth
+        prefixSort(a, prefixes, low, lt - 1, depth, insertionCutoff);
+        prefixSort(a, prefixes, gt + 1, high, depth, insertionCutoff);
+
+        // Same 4 chars: the strings that end in these chars go first (shortest first), the rest continue at depth + 4
+        int next = depth + PREFIX_CHARS;
+        int shortEnd = lt;
+        for (int j = lt; j <= gt; j++) {
+            if (a[j].length() <= next) exchange(a, prefixes, shortEnd++, j);
+        }
+        for (int j = lt + 1; j < shortEnd; j++) {
+            for (int k = j; k > lt && a[k - 1].length() > a[k].length(); k--) exchange(a, prefixes, k, k - 1);
+        }
+        if (shortEnd < gt) {
+            packPrefixes(a, prefixes, shortEnd, gt, next);
+            prefixSort(a, prefixes, shortEnd, gt, next, insertionCutoff);
+        }
+    }
+
+    private static void prefixInsertionSort(String[] a, long[] prefixes, int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low; j--) {
+                int cmp = Long.compareUnsigned(prefixes[j - 1], prefixes[j]);
+                if (cmp == 0) cmp = a[j - 1].compareTo(a[j]); // only go to the strings on a tie
+                if (cmp > 0) exchange(a, prefixes, j, j - 1);
+                else break;
+            }
+        }
+    }
+
+    // Packs the chars depth..depth+3 of every string in one long (missing chars count as 0)
+    private static void packPrefixes(String[] a, long[] prefixes, int low, int high, int depth) {
+        for (int i = low; i <= high; i++) {
+            String str = a[i];
+            int end = Math.min(str.length(), depth + PREFIX_CHARS);
+            long prefix = 0;
+            for (int j = depth; j < end; j++) prefix = (prefix << 16) | str.charAt(j);
+            prefixes[i] = prefix << (16 * (depth + PREFIX_CHARS - Math.max(end, depth)));
+        }
+    }
+
+    private static void exchange(String[] a, long[] prefixes, int i, int j) {
+        String str = a[i];
+        a[i] = a[j];
+        a[j] = str;
+        long prefix = prefixes[i];
+        prefixes[i] = prefixes[j];
+        prefixes[j] = prefix;
+    }
+
+    // Samples the input first and then uses the engine that suits it (see AdaptiveStringSort for the cutoffs)
+    public static void adaptiveSort(String[] a) {
+        new AdaptiveStringSort().sort(a);
+    }
+
     public static String[] geraRecursiveStringList(int n) {
         Random random = new Random();
         String[] stringList = new String[n];
@@ -0,0 +1,138 @@
+package aed.sorting;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/** Statistics of one run of the recursive_sort, to see where the time goes and tune the cutoffs.
+ Only collected by RecursiveStringSort.sortWithStats (or when the JFR event is enabled), the normal sort
+ passes no stats object and doesn't measure anything. */
+public class SortStats {
+
+    public enum Phase { LIMITS, DISTRIBUTION, INSERTION, COPY_BACK }
+
+    // Allocated bytes per thread, only on JVMs that support it (HotSpot does)
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private long[] calls = new long[8];            // recursive_sort calls per depth
+    private long[] bucketsAllocated = new long[8]; // per depth, counting the zero bucket
+    private long[] bucketsUsed = new long[8];
+    private int maxDepth;
+    private long insertionCalls;
+    private long insertionStrings;
+    private final long[] nanos = new long[Phase.values().length];
+    private final long[] bytes = new long[Phase.values().length];
+
+    // Phases never overlap (the recursion happens between the distribution and the copy back)
+    private long phaseNanos;
+    private long phaseBytes;
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) return bean;
+        }
+        return null;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    void enter(int depth) {
+        grow(depth);
+        calls[depth]++;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    void buckets(int depth, int allocated, int used) {
+        bucketsAllocated[depth] += allocated;
+        bucketsUsed[depth] += used;
+    }
+
+    void insertion(int strings) {
+        insertionCalls++;
+        insertionStrings += strings;
+    }
+
+    void begin() {
+        phaseBytes = allocatedBytes();
+        phaseNanos = System.nanoTime();
+    }
+
+    void end(Phase phase) {
+        nanos[phase.ordinal()] += System.nanoTime() - phaseNanos;
+        bytes[phase.ordinal()] += allocatedBytes() - phaseBytes;
+    }
+
+    private void grow(int depth) {
+        if (depth < calls.length) return;
+        int size = Math.max(calls.length * 2, depth + 1);
+        calls = Arrays.copyOf(calls, size);
+        bucketsAllocated = Arrays.copyOf(bucketsAllocated, size);
+        bucketsUsed = Arrays.copyOf(bucketsUsed, size);
+    }
+
+    void fill(RecursiveSortEvent event, int size) {
+        event.size = size;
+        event.maxDepth = maxDepth;
+        event.insertionStrings = insertionStrings;
+        event.bucketsAllocated = Arrays.stream(bucketsAllocated).sum();
+        event.bucketsUsed = Arrays.stream(bucketsUsed).sum();
+        event.limitsNanos = getNanos(Phase.LIMITS);
+        event.distributionNanos = getNanos(Phase.DISTRIBUTION);
+        event.insertionNanos = getNanos(Phase.INSERTION);
+        event.copyBackNanos = getNanos(Phase.COPY_BACK);
+        event.allocatedBytes = Arrays.stream(bytes).sum();
+    }
+
+    // Number of recursive_sort calls at every depth (index 0 is the first char)
+    public long[] getDepthHistogram() {
+        return Arrays.copyOf(calls, maxDepth + 1);
+    }
+
+    public long[] getBucketsAllocated() {
+        return Arrays.copyOf(bucketsAllocated, maxDepth + 1);
+    }
+
+    public long[] getBucketsUsed() {
+        return Arrays.copyOf(bucketsUsed, maxDepth + 1);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getInsertionCalls() {
+        return insertionCalls;
+    }
+
+    public long getInsertionStrings() {
+        return insertionStrings;
+    }
+
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    // 0 when the JVM can't measure allocations per thread
+    public long getAllocatedBytes(Phase phase) {
+        return bytes[phase.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        str.append("depth\tcalls\tbuckets allocated\tbuckets used\n");
+        for (int i = 0; i <= maxDepth; i++) {
+            str.append(i).append('\t').append(calls[i]).append('\t')
+               .append(bucketsAllocated[i]).append('\t').append(bucketsUsed[i]).append('\n');
+        }
+        str.append("insertion sort: ").append(insertionCalls).append(" calls, ")
+           .append(insertionStrings).append(" strings\n");
+        for (Phase phase : Phase.values()) {
+            str.append(phase).append(": ").append(getNanos(phase) / 1E6).append(" ms, ")
+               .append(getAllocatedBytes(phase) / 1024).append(" KB\n");
+        }
+        return str.toString();
+    }
+}
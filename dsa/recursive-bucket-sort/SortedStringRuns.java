@@ -0,0 +1,154 @@
+package aed.sorting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Sorted collection for strings that keep arriving in batches, so the whole data doesn't have to be sorted again.
+ Every batch becomes one or more sorted runs: if it already has long runs in order (or in reverse order) they're
+ used as they are, like TimSort does, otherwise it's sorted with RecursiveStringSort.sort.
+ The runs are kept in a stack where every run is more than twice the size of the one above it, so there are only
+ log(n) of them and every string is merged log(n) times at most. The runs are only merged into one when the
+ sorted data is asked for (toArray). Merges use galloping, so runs that barely overlap are copied in blocks. */
+public class SortedStringRuns {
+
+    // Runs in a batch shorter than this (on average) aren't worth keeping, the batch is just sorted
+    private static final int MIN_RUN = 32;
+    // After winning this many times in a row one side of the merge starts galloping
+    private static final int MIN_GALLOP = 7;
+
+    private final List<String[]> runs = new ArrayList<>(); // oldest (and biggest) first
+    private int size;
+
+    public void add(String[] batch) {
+        if (batch.length == 0) return;
+        String[] copy = batch.clone();
+
+        List<int[]> natural = naturalRuns(copy);
+        if (natural.size() * MIN_RUN > copy.length) {
+            RecursiveStringSort.sort(copy);
+            push(copy);
+        } else if (natural.size() == 1) {
+            push(copy);
+        } else {
+            for (int[] run : natural) push(Arrays.copyOfRange(copy, run[0], run[1]));
+        }
+        size += copy.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int runCount() {
+        return runs.size();
+    }
+
+    // Merges every run into one and returns a copy of it
+    public String[] toArray() {
+        compact();
+        return runs.isEmpty() ? new String[0] : runs.get(0).clone();
+    }
+
+    public void compact() {
+        while (runs.size() > 1) mergeTop();
+    }
+
+    private void push(String[] run) {
+        runs.add(run);
+        while (runs.size() > 1 && runs.get(runs.size() - 2).length <= 2 * runs.get(runs.size() - 1).length) {
+            mergeTop();
+        }
+    }
+
+    private void mergeTop() {
+        String[] newer = runs.remove(runs.size() - 1);
+        String[] older = runs.remove(runs.size() - 1);
+        runs.add(merge(older, newer));
+    }
+
+    /** Splits the array in the runs [start, end) that are already in order. Runs in strictly descending order are
+     reversed in place (strictly, so equal strings never change their order). */
+    static List<int[]> naturalRuns(String[] a) {
+        List<int[]> natural = new ArrayList<>();
+        int start = 0;
+        while (start < a.length) {
+            int end = start + 1;
+            if (end < a.length && a[end].compareTo(a[start]) < 0) {
+                while (end < a.length && a[end].compareTo(a[end - 1]) < 0) end++;
+                reverse(a, start, end - 1);
+            } else {
+                while (end < a.length && a[end].compareTo(a[end - 1]) >= 0) end++;
+            }
+            natural.add(new int[]{start, end});
+            start = end;
+        }
+        return natural;
+    }
+
+    private static void reverse(String[] a, int low, int high) {
+        while (low < high) {
+            String tmp = a[low];
+            a[low++] = a[high];
+            a[high--] = tmp;
+        }
+    }
+
+    // Stable merge: on equal strings the ones from a (the older run) go first
+    static String[] merge(String[] a, String[] b) {
+        String[] out = new String[a.length + b.length];
+        int i = 0, j = 0, o = 0;
+        int winsA = 0, winsB = 0;
+
+        while (i < a.length && j < b.length) {
+            if (winsA >= MIN_GALLOP) {
+                // Copy at once everything of a that goes before b[j]
+                int k = gallop(b[j], a, i, a.length, true);
+                System.arraycopy(a, i, out, o, k - i);
+                o += k - i;
+                i = k;
+                winsA = 0;
+            } else if (winsB >= MIN_GALLOP) {
+                int k = gallop(a[i], b, j, b.length, false);
+                System.arraycopy(b, j, out, o, k - j);
+                o += k - j;
+                j = k;
+                winsB = 0;
+            } else if (b[j].compareTo(a[i]) < 0) {
+                out[o++] = b[j++];
+                winsB++;
+                winsA = 0;
+            } else {
+                out[o++] = a[i++];
+                winsA++;
+                winsB = 0;
+            }
+        }
+        System.arraycopy(a, i, out, o, a.length - i);
+        System.arraycopy(b, j, out, o + a.length - i, b.length - j);
+        return out;
+    }
+
+    /** First position k of a[low..high-1] with a[k] > key (right) or a[k] >= key (left).
+     Looks at low, low+1, low+3, low+7... and then does a binary search in the last interval. */
+    private static int gallop(String key, String[] a, int low, int high, boolean right) {
+        int found = low; // everything before found goes before the key
+        int step = 1;
+        while (low + step - 1 < high && goesBefore(a[low + step - 1], key, right)) {
+            found = low + step;
+            step <<= 1;
+        }
+        int end = Math.min(low + step - 1, high);
+        while (found < end) {
+            int mid = (found + end) >>> 1;
+            if (goesBefore(a[mid], key, right)) found = mid + 1;
+            else end = mid;
+        }
+        return found;
+    }
+
+    private static boolean goesBefore(String str, String key, boolean right) {
+        int cmp = str.compareTo(key);
+        return right ? cmp <= 0 : cmp < 0;
+    }
+}
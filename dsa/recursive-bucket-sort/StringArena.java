@@ -0,0 +1,70 @@
+package aed.sorting;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/** Strings packed one after the other in a single buffer, each one described by an offset and a length.
+ Nothing is ever turned into a String object, so the buffer can be a file mapped straight from disk. */
+public class StringArena {
+    final ByteBuffer buffer;
+    final int[] offsets;
+    final int[] lengths;
+    final int size;
+
+    public StringArena(ByteBuffer buffer, int[] offsets, int[] lengths, int size) {
+        if (offsets.length < size || lengths.length < size) throw new IllegalArgumentException();
+        this.buffer = buffer;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.size = size;
+    }
+
+    // Every line of the buffer becomes a string ('\n' and a '\r' right before it are not part of the string)
+    public static StringArena fromLines(ByteBuffer buffer) {
+        int[] offsets = new int[16];
+        int[] lengths = new int[16];
+        int size = 0;
+
+        int start = 0;
+        int limit = buffer.limit();
+        for (int i = 0; i <= limit; i++) {
+            if (i == limit && start == limit) break; // no empty line after the last '\n'
+            if (i == limit || buffer.get(i) == '\n') {
+                int end = i;
+                if (end > start && buffer.get(end - 1) == '\r') end--;
+                if (size == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, size * 2);
+                    lengths = Arrays.copyOf(lengths, size * 2);
+                }
+                offsets[size] = start;
+                lengths[size] = end - start;
+                size++;
+                start = i + 1;
+            }
+        }
+        return new StringArena(buffer, offsets, lengths, size);
+    }
+
+    // Maps the whole file (read only) and indexes its lines
+    public static StringArena mapLines(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return fromLines(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Only meant for debugging/printing, it's the one place where a String gets created
+    public String get(int i, Charset charset) {
+        byte[] bytes = new byte[lengths[i]];
+        buffer.get(offsets[i], bytes);
+        return new String(bytes, charset);
+    }
+}
@@ -0,0 +1,49 @@
+package aed.sorting;
+
+import java.util.Arrays;
+
+/** The distinct strings of an input, in order, with how many times each one appeared.
+ Returned by RecursiveStringSort.sortWithCounts, the arrays grow as the distinct strings are found, so the
+ memory used is proportional to the number of distinct strings and not to the size of the input. */
+public class StringCounts {
+
+    private String[] strings = new String[16];
+    private int[] counts = new int[16];
+    private int size;
+
+    StringCounts() {
+    }
+
+    // The strings must be added in order, every one different from the last
+    void add(String str, int count) {
+        if (size == strings.length) {
+            strings = Arrays.copyOf(strings, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+        }
+        strings[size] = str;
+        counts[size++] = count;
+    }
+
+    // Number of distinct strings
+    public int size() {
+        return size;
+    }
+
+    public String getString(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        return strings[i];
+    }
+
+    public int getCount(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        return counts[i];
+    }
+
+    public String[] getStrings() {
+        return Arrays.copyOf(strings, size);
+    }
+
+    public int[] getCounts() {
+        return Arrays.copyOf(counts, size);
+    }
+}
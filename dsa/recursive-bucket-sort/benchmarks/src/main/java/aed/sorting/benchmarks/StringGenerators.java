@@ -0,0 +1,126 @@
+package aed.sorting.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** Input generators that look like real data, unlike geraRecursiveStringList (uniformly random UTF-16 chars).
+ Every generator gets its own seed so the benchmarks always sort the same arrays. */
+public class StringGenerators {
+
+    public enum Dataset { RANDOM_UTF16, WORDS, URLS, NUMERIC_IDS, MIXED_CJK, DUPLICATES, NEARLY_SORTED }
+
+    private static final String[] SYLLABLES = {
+            "ta", "ne", "ri", "so", "ka", "lu", "me", "po", "di", "an", "er", "in", "on", "st", "ch", "qu",
+            "ble", "tion", "ing", "pre", "con", "ment", "ous", "ver"
+    };
+
+    private static final String[] HOSTS = {
+            "https://www.example.com/", "https://shop.example.com/products/", "https://api.example.org/v2/users/",
+            "http://cdn.example.net/static/assets/images/"
+    };
+
+    public static String[] generate(Dataset dataset, int n, long seed) {
+        Random random = new Random(seed);
+        switch (dataset) {
+            case WORDS: return words(n, random);
+            case URLS: return urls(n, random);
+            case NUMERIC_IDS: return numericIds(n, random);
+            case MIXED_CJK: return mixedCjk(n, random);
+            case DUPLICATES: return duplicates(n, random);
+            case NEARLY_SORTED: return nearlySorted(n, random);
+            default: return randomUtf16(n, random);
+        }
+    }
+
+    // Same as geraRecursiveStringList
+    static String[] randomUtf16(int n, Random random) {
+        String[] a = new String[n];
+        for (int i = 0; i < n; i++) {
+            int size = random.nextInt(10) + 1;
+            StringBuilder str = new StringBuilder();
+            for (int j = 0; j < size; j++) str.append((char) random.nextInt());
+            a[i] = str.toString();
+        }
+        return a;
+    }
+
+    // Dictionary-like words: 1 to 4 syllables, the short ones repeat a lot like in a real vocabulary
+    static String[] words(int n, Random random) {
+        String[] a = new String[n];
+        for (int i = 0; i < n; i++) a[i] = word(random);
+        return a;
+    }
+
+    private static String word(Random random) {
+        int syllables = 1 + random.nextInt(4);
+        StringBuilder str = new StringBuilder();
+        for (int j = 0; j < syllables; j++) str.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        return str.toString();
+    }
+
+    // Few hosts and paths, so most strings share a long prefix
+    static String[] urls(int n, Random random) {
+        String[] a = new String[n];
+        for (int i = 0; i < n; i++) {
+            StringBuilder str = new StringBuilder(HOSTS[random.nextInt(HOSTS.length)]);
+            int depth = 1 + random.nextInt(3);
+            for (int j = 0; j < depth; j++) str.append(word(random)).append('/');
+            str.append(random.nextInt(1_000_000));
+            a[i] = str.toString();
+        }
+        return a;
+    }
+
+    // Zero padded ids, so the alphabet is only the 10 digits
+    static String[] numericIds(int n, Random random) {
+        String[] a = new String[n];
+        for (int i = 0; i < n; i++) a[i] = String.format("%012d", random.nextLong() & 0xffffffffffL);
+        return a;
+    }
+
+    // Mostly ascii words with some japanese/chinese ones (the case fasterSort was made for)
+    static String[] mixedCjk(int n, Random random) {
+        String[] a = new String[n];
+        for (int i = 0; i < n; i++) {
+            if (random.nextInt(5) == 0) {
+                int size = 1 + random.nextInt(6);
+                StringBuilder str = new StringBuilder();
+                for (int j = 0; j < size; j++) str.append((char) (0x4E00 + random.nextInt(0x5000)));
+                a[i] = str.toString();
+            } else {
+                a[i] = word(random);
+            }
+        }
+        return a;
+    }
+
+    // About 90% of the strings are copies of a few hundred keys
+    static String[] duplicates(int n, Random random) {
+        String[] keys = new String[300];
+        for (int i = 0; i < keys.length; i++) keys[i] = "event." + word(random) + "." + word(random);
+        String[] a = new String[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = random.nextInt(10) == 0 ? "event." + word(random) + "." + random.nextInt() : keys[random.nextInt(keys.length)];
+        }
+        return a;
+    }
+
+    // Log-like timestamps in order, with 1% of the positions swapped
+    static String[] nearlySorted(int n, Random random) {
+        String[] a = new String[n];
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < n; i++) {
+            time += random.nextInt(50);
+            a[i] = time + " INFO " + word(random);
+        }
+        Arrays.sort(a);
+        for (int k = 0; k < n / 100; k++) {
+            int i = random.nextInt(n);
+            int j = random.nextInt(n);
+            String tmp = a[i];
+            a[i] = a[j];
+            a[j] = tmp;
+        }
+        return a;
+    }
+}
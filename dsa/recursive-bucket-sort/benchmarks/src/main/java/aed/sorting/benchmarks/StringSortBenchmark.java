@@ -0,0 +1,116 @@
+package aed.sorting.benchmarks;
+
+import aed.sorting.BurstSort;
+import aed.sorting.RecursiveStringSort;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** JMH benchmarks for the string sorting engines, replaces the timeTests/runDoublingRatioTest measurements.
+ Every benchmark sorts a fresh copy of the same input, copyOnly measures that copy alone so it can be subtracted.
+ The main method runs them with the GC profiler, which gives the allocation per operation (gc.alloc.rate.norm).
+ Built with the pom.xml of this module: mvn -Daed.sources=... package, then java -jar target/benchmarks.jar */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class StringSortBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"RANDOM_UTF16", "WORDS", "URLS", "NUMERIC_IDS", "MIXED_CJK", "DUPLICATES", "NEARLY_SORTED"})
+    public StringGenerators.Dataset dataset;
+
+    private String[] input;
+
+    @Setup
+    public void setup() {
+        input = StringGenerators.generate(dataset, size, 42);
+    }
+
+    @Benchmark
+    public String[] copyOnly() {
+        return input.clone();
+    }
+
+    @Benchmark
+    public String[] sort() {
+        String[] a = input.clone();
+        RecursiveStringSort.sort(a);
+        return a;
+    }
+
+    @Benchmark
+    public String[] fasterSort() {
+        String[] a = input.clone();
+        RecursiveStringSort.fasterSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public String[] quicksort() {
+        String[] a = input.clone();
+        RecursiveStringSort.quicksort(a);
+        return a;
+    }
+
+    @Benchmark
+    public String[] prefixSort() {
+        String[] a = input.clone();
+        RecursiveStringSort.prefixSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public String[] burstSort() {
+        String[] a = input.clone();
+        BurstSort.sort(a);
+        return a;
+    }
+
+    @Benchmark
+    public String[] adaptiveSort() {
+        String[] a = input.clone();
+        RecursiveStringSort.adaptiveSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public String[] arraysSort() {
+        String[] a = input.clone();
+        Arrays.sort(a);
+        return a;
+    }
+
+    // Accepts the usual JMH command line options (-p size=1000, -f 1, a benchmark regex...), the defaults are
+    // only used when the command line doesn't give its own benchmarks or profilers
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) builder.include(StringSortBenchmark.class.getSimpleName());
+        if (commandLine.getProfilers().isEmpty()) builder.addProfiler(GCProfiler.class);
+        new Runner(builder.build()).run();
+    }
+}